@@ -1,5 +1,7 @@
 package com.hevin;
 
+import java.util.List;
+
 import com.hevin.dto.Command;
 import com.hevin.dto.Transaction;
 import com.hevin.state.TransactionState;
@@ -40,6 +42,11 @@ public class Connection {
 		return this.executeCommand(Command.Delete, new String[]{key});
 	}
 
+	// keys separated by comma whose visible value has the index key
+	public String lookup(String indexName, String indexKey) {
+		return this.executeCommand(Command.Lookup, new String[]{indexName, indexKey});
+	}
+
 	private String executeCommand(Command command, String[] args) {
 		Utils.debug("executing command: " + command + ", args: " + String.join(",", args));
 		switch (command) {
@@ -75,11 +82,24 @@ public class Connection {
 				String key = args[0];
 				Utils.debug("get key: " + key);
 
-				transaction.getReadSet().add(key);
+				database.trackRead(transaction, key);
 
 				return database.getVisibleValue(transaction, key)
 						.orElse(NO_RECORD_BE_MODIFIED);
 			}
+
+			case Lookup -> {
+				validate(command, args);
+
+				String indexName = args[0];
+				String indexKey = args[1];
+				Utils.debug("lookup index: " + indexName + ", index key: " + indexKey);
+
+				List<String> keys = database.lookup(transaction, indexName, indexKey);
+				database.trackIndexRead(transaction, indexName, indexKey);
+
+				return keys.isEmpty() ? NO_RECORD_BE_MODIFIED : String.join(",", keys);
+			}
 			
 			case Set, Delete -> {
 				validate(command, args);
@@ -90,7 +110,7 @@ public class Connection {
 					return NO_RECORD_BE_MODIFIED;
 				}
 
-				transaction.getWriteSet().add(key);
+				transaction.getWriteSet().add(database.internKey(key));
 
 				if(command == Command.Set) {
 					String value = args[1];
@@ -118,6 +138,7 @@ public class Connection {
 			case Get -> Utils.assertWith(args.length == 1, "expect 1 argument for [get] command");
 			case Set -> Utils.assertWith(args.length == 2, "expect 2 argument for [set] command");
 			case Delete -> Utils.assertWith(args.length == 1, "expect 1 argument for [delete] command");
+			case Lookup -> Utils.assertWith(args.length == 2, "expect 2 argument for [lookup] command");
 		}
 	}
 }
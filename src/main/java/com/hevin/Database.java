@@ -7,30 +7,57 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import com.hevin.cache.LatestValueCache;
+import com.hevin.cache.LatestValueCache.CachedValue;
+import com.hevin.cdc.ChangeStream;
 import com.hevin.dto.Transaction;
 import com.hevin.dto.Value;
+import com.hevin.encoding.KeyDictionary;
+import com.hevin.index.SecondaryIndex;
 import com.hevin.state.IsolationLevel;
 import com.hevin.state.TransactionState;
+import com.hevin.utils.IntHashSet;
 import com.hevin.utils.Utils;
 
 public class Database {
 
+	public static final int DEFAULT_CHANGE_STREAM_CAPACITY = 1024;
+	public static final int DEFAULT_LATEST_VALUE_CACHE_SIZE = 10_000;
+
 	private IsolationLevel defaultIsolationLevel;
 	// in real world, this would be a b+ tree or SSTable
 	// value persist value list to support snapshot isolation with different version of value
-	private Map<String, List<Value>> store;
+	// indexed by key id, null if the key is interned but never written
+	private List<List<Value>> store;
+	private KeyDictionary keys;
+	private boolean compactEncoding;	// store values as UTF-8 bytes
 	private Map<Integer, Transaction> transactions;
+	private Map<String, SecondaryIndex> indexes;
 	private int nextTransactionId;
+	// committed writes for downstream consumers(cache, search index...)
+	private ChangeStream changeStream;
+	// latest committed value of hot keys, skip scanning value list for read committed and snapshot reads
+	private LatestValueCache latestValueCache;
+	private long commitSequence;	// increase by one for every committed tx
 
 	public static Database newDatabase() {
 		Database database = new Database();
 		database.defaultIsolationLevel = IsolationLevel.ReadCommitted;
-		database.store = new HashMap<>();
+		database.keys = new KeyDictionary();
+		database.store = new ArrayList<>();
+		database.store.add(null);	// KeyDictionary.INVALID_KEY_ID
+		database.compactEncoding = false;
 		database.transactions = new HashMap<>();
+		database.indexes = new HashMap<>();
 		database.nextTransactionId = 0;
+		database.changeStream = new ChangeStream(DEFAULT_CHANGE_STREAM_CAPACITY);
+		database.latestValueCache = new LatestValueCache(DEFAULT_LATEST_VALUE_CACHE_SIZE);
+		database.commitSequence = 0;
 		return database;
 	}
 
@@ -38,6 +65,24 @@ public class Database {
 		this.defaultIsolationLevel = defaultIsolationLevel;
 	}
 
+	// only affect values written after this call
+	public void setCompactEncoding(boolean compactEncoding) {
+		this.compactEncoding = compactEncoding;
+	}
+
+	// key id shared by store and read/write set of tx
+	public int internKey(String key) {
+		return keys.intern(key);
+	}
+
+	public ChangeStream getChangeStream() {
+		return changeStream;
+	}
+
+	public LatestValueCache getLatestValueCache() {
+		return latestValueCache;
+	}
+
 	public Set<Integer> inprogress() {
 		return transactions.entrySet().stream()
 				.filter(e -> e.getValue().getState() == TransactionState.InProgress)
@@ -47,7 +92,7 @@ public class Database {
 
 	public Transaction newTransaction() {
 		Transaction transaction = new Transaction(defaultIsolationLevel, ++nextTransactionId,
-				TransactionState.InProgress, inprogress());
+				TransactionState.InProgress, inprogress(), commitSequence);
 		transactions.put(transaction.getId(), transaction);
 		Utils.debug("new transaction: " + transaction.getId());
 		return transaction;
@@ -81,11 +126,11 @@ public class Database {
 			// to make tInterleaved execution like Serializable, to prevent tx can not read/write value by other tx
 			if (transaction.getIsolationLevel() == IsolationLevel.Serializable && (
 					hasOverlapTx(transaction,
-							(currentTx, overlapTx) -> checkSharedValueConflict(currentTx.getReadSet(),
-									overlapTx.getWriteSet()))
+							// value read by me is modified by other tx
+							(currentTx, overlapTx) -> checkReadWriteConflict(currentTx, overlapTx))
 							|| hasOverlapTx(transaction,
-							(currentTx, overlapTx) -> checkSharedValueConflict(currentTx.getWriteSet(),
-									overlapTx.getReadSet()))
+							// value modified by me is read by other tx
+							(currentTx, overlapTx) -> checkReadWriteConflict(overlapTx, currentTx))
 			)
 			) {
 				completeTransaction(transaction, TransactionState.Aborted);
@@ -95,6 +140,35 @@ public class Database {
 
 		transaction.setState(state);
 		transactions.put(transaction.getId(), transaction);
+
+		if (state == TransactionState.Committed) {
+			commitSequence++;
+			// latest committed value of written keys changed
+			transaction.getWriteSet().forEach(keyId -> latestValueCache.invalidate(keys.keyOf(keyId)));
+		}
+
+		if (state == TransactionState.Committed && !transaction.getWriteSet().isEmpty()) {
+			changeStream.publish(transaction.getId(), committedChanges(transaction));
+		}
+	}
+
+	// the final value of every key written by tx, null if the key is deleted by tx
+	private Map<String, String> committedChanges(Transaction tx) {
+		Map<String, String> changes = new HashMap<>();
+		tx.getWriteSet().forEach(keyId -> {
+			String newValue = null;
+			List<Value> v = store.get(keyId);
+			for (int i = v.size() - 1; i >= 0; i--) {
+				Value value = v.get(i);
+				if (value.getTxStartId() == tx.getId()) {
+					// the newest version created by tx, unless tx deleted it later
+					newValue = value.getTxEndId() == tx.getId() ? null : value.getValue();
+					break;
+				}
+			}
+			changes.put(keys.keyOf(keyId), newValue);
+		});
+		return changes;
 	}
 
 	public Connection newConnection() {
@@ -103,11 +177,84 @@ public class Database {
 
 
 	public void upsert(Transaction tx, String key, String value) {
-		List<Value> values = store.getOrDefault(key, new ArrayList<>());
-		values.add(new Value(tx.getId(), value));
-		store.put(key, values);
+		int keyId = keys.intern(key);
+		while (store.size() <= keyId) {
+			store.add(null);
+		}
+		List<Value> values = store.get(keyId);
+		if (values == null) {
+			values = new ArrayList<>(1);	// most keys have few versions, default capacity 10 wastes memory
+			store.set(keyId, values);
+		}
+		Value version = compactEncoding ? Value.encoded(tx.getId(), value) : new Value(tx.getId(), value);
+		values.add(version);
+
+		for (SecondaryIndex index : indexes.values()) {
+			String indexKey = index.add(keys.keyOf(keyId), version);	// share the interned key with store
+			if (indexKey != null) {
+				tx.addIndexWrite(index.predicate(indexKey));
+			}
+		}
 	}
 
+	// index key is derived from value by indexKeyFn, existing versions are indexed as well.
+	public void createIndex(String name, Function<String, String> indexKeyFn) {
+		Utils.assertWith(!indexes.containsKey(name), "index already exists: " + name);
+
+		SecondaryIndex index = new SecondaryIndex(name, indexKeyFn);
+		for (int keyId = 1; keyId < store.size(); keyId++) {
+			List<Value> values = store.get(keyId);
+			if (values == null) {
+				continue;
+			}
+			for (Value version : values) {
+				index.add(keys.keyOf(keyId), version);
+			}
+		}
+		indexes.put(name, index);
+	}
+
+	// keys whose visible value has the index key, sorted by key
+	public List<String> lookup(Transaction tx, String indexName, String indexKey) {
+		SecondaryIndex index = indexes.get(indexName);
+		Utils.assertWith(index != null, "index not exists: " + indexName);
+
+		Set<String> keys = new TreeSet<>();
+		for (SecondaryIndex.Entry entry : index.candidates(indexKey)) {
+			if (keys.contains(entry.getKey()) || !isVisible(tx, entry.getVersion())) {
+				continue;
+			}
+			// an older version may still be visible, only the newest visible version counts.
+			if (getVisibleVersion(tx, entry.getKey()).orElse(null) == entry.getVersion()) {
+				keys.add(entry.getKey());
+			}
+		}
+		return new ArrayList<>(keys);
+	}
+
+
+	// Keys never written are not interned on read, or every read of missing key would
+	// grow the dictionary forever. They are kept by name in tx and resolved at conflict check.
+	public void trackRead(Transaction tx, String key) {
+		int keyId = keys.idOf(key);
+		if (keyId == KeyDictionary.INVALID_KEY_ID) {
+			tx.addMissingKeyRead(key);
+		} else {
+			tx.getReadSet().add(keyId);
+		}
+	}
+
+	// Track lookup as a predicate read for Serializable.
+	// Keys ever indexed by the index key are read as well, including keys only matched by older versions.
+	public void trackIndexRead(Transaction tx, String indexName, String indexKey) {
+		SecondaryIndex index = indexes.get(indexName);
+		Utils.assertWith(index != null, "index not exists: " + indexName);
+
+		for (SecondaryIndex.Entry entry : index.candidates(indexKey)) {
+			tx.getReadSet().add(keys.idOf(entry.getKey()));
+		}
+		tx.addIndexRead(index.predicate(indexKey));
+	}
 
 	// visibility
 	private boolean isVisible(Transaction tx, Value value) {
@@ -125,8 +272,7 @@ public class Database {
 		if (isolationLevel == IsolationLevel.ReadCommitted) {
 			// exclude operations by other un committed tx
 			if (value.getTxStartId() != tx.getId()  // value is not created by current tx.
-					&& transactions.get(value.getTxStartId()).getState()
-					!= TransactionState.Committed) {  // value is modify by other uncommitted tx
+					&& txStartState(value) != TransactionState.Committed) {  // value is modify by other uncommitted tx
 				return false;
 			}
 
@@ -136,8 +282,7 @@ public class Database {
 				return false;
 			}
 			if (value.getTxEndId() > 0 // record be deleted
-					&& transactions.get(value.getTxEndId()).getState()
-					== TransactionState.Committed) {  // value is deleted by other committed tx
+					&& txEndState(value) == TransactionState.Committed) {  // value is deleted by other committed tx
 				return false;
 			}
 
@@ -163,8 +308,8 @@ public class Database {
 		}
 
 		// ignore uncommitted value from other tx
-		if (transactions.get(value.getTxStartId()).getState() != TransactionState.Committed
-				&& value.getTxStartId() != tx.getId()) {
+		if (value.getTxStartId() != tx.getId()
+				&& txStartState(value) != TransactionState.Committed) {
 			return false;
 		}
 
@@ -172,7 +317,7 @@ public class Database {
 		if (value.getTxEndId() > 0  // value is be deleted
 				&& value.getTxEndId() < tx.getId()  // delete operation is before than this tx begin
 				// this delete operation is committed.
-				&& transactions.get(value.getTxEndId()).getState() == TransactionState.Committed
+				&& txEndState(value) == TransactionState.Committed
 				// delete operation is committed(previous condition) before than this tx begin.
 				&& !tx.getInProgress().contains(value.getTxEndId())
 		) {
@@ -182,8 +327,63 @@ public class Database {
 		return true;
 	}
 
+	// state of the tx created this value.
+	// Once the tx is committed or aborted the state never changes, so cache it on value(hint bits)
+	// and later reads of this version do not need to look up the transaction table.
+	private TransactionState txStartState(Value value) {
+		TransactionState hint = value.getTxStartHint();
+		if (hint != null) {
+			return hint;
+		}
+
+		TransactionState state = transactions.get(value.getTxStartId()).getState();
+		if (state != TransactionState.InProgress) {
+			value.setTxStartHint(state);
+		}
+		return state;
+	}
+
+	// state of the tx deleted this value, cached the same way as txStartState.
+	private TransactionState txEndState(Value value) {
+		TransactionState hint = value.getTxEndHint();
+		if (hint != null) {
+			return hint;
+		}
+
+		TransactionState state = transactions.get(value.getTxEndId()).getState();
+		if (state != TransactionState.InProgress) {
+			value.setTxEndHint(state);
+		}
+		return state;
+	}
+
 	public Optional<String> getVisibleValue(Transaction tx, String key) {
-		List<Value> v = store.get(key);
+		// tx sees the latest committed value only if it did not write the key
+		// and does not read uncommitted values.
+		boolean readLatestCommitted = tx.getIsolationLevel() != IsolationLevel.ReadUnCommitted
+				&& !tx.getWriteSet().contains(keys.idOf(key));
+		if (readLatestCommitted) {
+			// snapshot tx can only use value cached before it begins,
+			// since no commit changed the key between cached and tx begin.
+			long visibleCommitSequence = tx.getIsolationLevel() == IsolationLevel.ReadCommitted
+					? Long.MAX_VALUE : tx.getBeginCommitSequence();
+			CachedValue cached = latestValueCache.get(key, visibleCommitSequence);
+			if (cached != null) {
+				return Optional.ofNullable(cached.getValue());
+			}
+		}
+
+		Optional<String> visibleValue = getVisibleVersion(tx, key).map(Value::getValue);
+
+		// read committed without local writes reads exactly the latest committed value
+		if (readLatestCommitted && tx.getIsolationLevel() == IsolationLevel.ReadCommitted) {
+			latestValueCache.put(key, visibleValue.orElse(null), commitSequence);
+		}
+		return visibleValue;
+	}
+
+	private Optional<Value> getVisibleVersion(Transaction tx, String key) {
+		List<Value> v = versions(key);
 		if (v == null) {
 			return Optional.empty();
 		}
@@ -191,15 +391,21 @@ public class Database {
 		for (int i = v.size() - 1; i >= 0; i--) {
 			Value value = v.get(i);
 			if (isVisible(tx, value)) {
-				return Optional.of(value.getValue());
+				return Optional.of(value);
 			}
 		}
 
 		return Optional.empty();
 	}
 
+	// null if the key is never written, package-private for scenarios in Main
+	List<Value> versions(String key) {
+		int keyId = keys.idOf(key);
+		return keyId < store.size() ? store.get(keyId) : null;
+	}
+
 	public boolean setEndTxIdToVisibleValues(Transaction tx, String key) {
-		List<Value> v = store.get(key);
+		List<Value> v = versions(key);
 		if (v == null) {
 			return false;
 		}
@@ -208,7 +414,19 @@ public class Database {
 		for (Value value : v) {
 			if (isVisible(tx, value)) {
 				success = true;
+				if (value.getTxEndId() != 0) {
+					// overwrite delete operation by other tx, latest committed value may change
+					latestValueCache.invalidate(key);
+				}
 				value.setTxEndId(tx.getId());
+
+				// deleted record leaves its index key
+				for (SecondaryIndex index : indexes.values()) {
+					String indexKey = index.indexKeyOf(value.getValue());
+					if (indexKey != null) {
+						tx.addIndexWrite(index.predicate(indexKey));
+					}
+				}
 			}
 		}
 		return success;
@@ -237,7 +455,7 @@ public class Database {
 		}
 
 		// check overlap for tx created after current tx
-		for (int txId = tx.getId(); txId < nextTransactionId; txId++) {
+		for (int txId = tx.getId(); txId <= nextTransactionId; txId++) {	// nextTransactionId is the latest tx id
 			Transaction afterTx = transactions.get(txId);
 			if (afterTx == null) {
 				continue;
@@ -256,9 +474,29 @@ public class Database {
 
 	// Snapshot isolation check conflict function: write-write conflict
 	// in original article, this method called setsShareItem
-	private Boolean checkSharedValueConflict(Set<String> currentValues, Set<String> overflapValues) {
-		for (String key : currentValues) {
-			if (overflapValues.contains(key)) {
+	private Boolean checkSharedValueConflict(IntHashSet currentValues, IntHashSet overflapValues) {
+		return currentValues.containsAny(overflapValues);
+	}
+
+	// Serializable conflict function: reader read keys or index predicates written by writer
+	private boolean checkReadWriteConflict(Transaction reader, Transaction writer) {
+		if (checkSharedValueConflict(reader.getReadSet(), writer.getWriteSet())) {
+			return true;
+		}
+		// missing key may be written(interned) after read
+		for (String key : reader.getMissingKeyReadSet()) {
+			if (writer.getWriteSet().contains(keys.idOf(key))) {
+				return true;
+			}
+		}
+		// index lookup is changed by other tx(phantom)
+		return checkSharedIndexConflict(reader.getIndexReadSet(), writer.getIndexWriteSet());
+	}
+
+	// Serializable check for index predicates
+	private boolean checkSharedIndexConflict(Set<String> currentPredicates, Set<String> overlapPredicates) {
+		for (String predicate : currentPredicates) {
+			if (overlapPredicates.contains(predicate)) {
 				return true;
 			}
 		}
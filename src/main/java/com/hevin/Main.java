@@ -1,7 +1,19 @@
 package com.hevin;
 
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import com.hevin.cache.LatestValueCache;
+import com.hevin.cdc.ChangeEvent;
+import com.hevin.dto.Value;
+import com.hevin.state.TransactionState;
 import com.hevin.state.IsolationLevel;
 import com.hevin.utils.Utils;
+import com.hevin.workload.WorkloadConfig;
+import com.hevin.workload.WorkloadReport;
+import com.hevin.workload.WorkloadRunner;
 
 public class Main {
 
@@ -14,6 +26,13 @@ public class Main {
 //		repeatableReadTest();
 //		snapshotTestForWriteWriteConflict();
 //		serializableReadWriteTest();
+//		hintBitsTest();
+//		changeDataCaptureTest();
+//		latestValueCacheTest();
+//		secondaryIndexTest();
+//		secondaryIndexWriteBenchmark();
+//		workloadAnomalyTest();
+//		compactEncodingMemoryReport();
 	}
 
 
@@ -236,4 +255,315 @@ public class Main {
 	}
 	
 
+	// settled state of creator and deleter is cached on value after the first read,
+	// and the deleter hint is cleared when another tx deletes the value again.
+	private static void hintBitsTest() {
+		database.setDefaultIsolationLevel(IsolationLevel.ReadCommitted);
+
+		Connection c1 = database.newConnection();
+		c1.begin();
+		c1.set("x", "hey");
+		c1.commit();
+
+		Value version = database.versions("x").get(0);
+		Utils.assertWith(version.getTxStartHint() == null, "hint is resolved by read, not by commit");
+
+		// c2 deletes x but aborts
+		Connection c2 = database.newConnection();
+		c2.begin();
+		c2.delete("x");
+		c2.abort();
+
+		Connection c3 = database.newConnection();
+		c3.begin();
+		Utils.assertWith(c3.get("x").equals("hey"), "aborted delete is not visible");
+		Utils.assertWith(version.getTxStartHint() == TransactionState.Committed, "creator hint is committed");
+		Utils.assertWith(version.getTxEndHint() == TransactionState.Aborted, "deleter hint is aborted");
+
+		// c3 deletes x again, hint of the aborted deleter is stale now
+		c3.delete("x");
+		Utils.assertWith(version.getTxEndHint() == null, "deleter hint is cleared by new deleter");
+		c3.commit();
+
+		Connection c4 = database.newConnection();
+		c4.begin();
+		Utils.assertWith(c4.get("x").equals(Connection.NO_RECORD_BE_MODIFIED), "c3 delete is visible");
+		Utils.assertWith(version.getTxEndHint() == TransactionState.Committed, "deleter hint is committed");
+
+		System.out.println("Hint bits test pass");
+	}
+
+	// committed writes are published to change stream in commit order,
+	// and subscriber can resume from a commit position.
+	private static void changeDataCaptureTest() {
+		database.setDefaultIsolationLevel(IsolationLevel.ReadCommitted);
+
+		ChangeCollector collector = new ChangeCollector();
+		database.getChangeStream().subscribe(collector);
+		// a broken consumer is cancelled and can not fail the commit
+		database.getChangeStream().subscribe(new ChangeCollector() {
+			@Override
+			public void onNext(ChangeEvent item) {
+				throw new RuntimeException("consumer boom");
+			}
+		});
+
+		Connection c1 = database.newConnection();
+		c1.begin();
+		c1.set("x", "hey");
+		c1.set("y", "yall");
+		Utils.assertWith(collector.received.isEmpty(), "uncommitted writes should not be published");
+		Utils.assertWith(c1.commit().isEmpty(), "failure of consumer should not fail the commit");
+		Utils.assertWith(collector.received.size() == 1, "c1 commit should be published");
+		Utils.assertWith(collector.received.get(0).getChanges().get("x").equals("hey"), "c1 set x");
+
+		// aborted tx is not published
+		Connection c2 = database.newConnection();
+		c2.begin();
+		c2.set("x", "aborted");
+		c2.abort();
+		Utils.assertWith(collector.received.size() == 1, "aborted tx should not be published");
+
+		Connection c3 = database.newConnection();
+		c3.begin();
+		c3.delete("x");
+		c3.commit();
+		Utils.assertWith(collector.received.size() == 2, "c3 commit should be published");
+		Utils.assertWith(collector.received.get(1).getChanges().containsKey("x")
+				&& collector.received.get(1).getChanges().get("x") == null, "c3 delete x");
+
+		// subscriber can not subscribe twice
+		database.getChangeStream().subscribe(collector, 1);
+		Utils.assertWith(collector.error instanceof IllegalStateException, "duplicated subscribe is rejected");
+		Utils.assertWith(collector.received.size() == 2, "duplicated subscribe delivers nothing");
+
+		// resume from the position of c3 commit with a new subscription
+		long position = collector.received.get(1).getPosition();
+		collector.subscription.cancel();
+		ChangeCollector resumed = new ChangeCollector();
+		database.getChangeStream().subscribe(resumed, position);
+		Utils.assertWith(resumed.received.size() == 1 && resumed.received.get(0).getPosition() == position,
+				"resume from c3 commit position");
+
+		Connection c4 = database.newConnection();
+		c4.begin();
+		c4.set("z", "yo");
+		c4.commit();
+		Utils.assertWith(resumed.received.size() == 2, "c4 commit is delivered once");
+		Utils.assertWith(collector.received.size() == 2, "cancelled subscription receives nothing");
+		Utils.assertWith(resumed.error == null, "no error for resumed subscriber");
+
+		System.out.println("Change data capture test pass");
+	}
+
+	// request one event at a time and keep all received events
+	private static class ChangeCollector implements Flow.Subscriber<ChangeEvent> {
+
+		private final List<ChangeEvent> received = new ArrayList<>();
+		private Flow.Subscription subscription;
+		private Throwable error;
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			// keep the first subscription, the rejected one is only for onError
+			if (this.subscription == null) {
+				this.subscription = subscription;
+			}
+			subscription.request(1);
+		}
+
+		@Override
+		public void onNext(ChangeEvent item) {
+			received.add(item);
+			subscription.request(1);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+		}
+
+		@Override
+		public void onComplete() {
+		}
+	}
+
+	// repeated reads of committed value are answered by cache,
+	// and cache is invalidated when writer of the key commits.
+	private static void latestValueCacheTest() {
+		database.setDefaultIsolationLevel(IsolationLevel.ReadCommitted);
+		LatestValueCache cache = database.getLatestValueCache();
+
+		Connection c1 = database.newConnection();
+		c1.begin();
+		c1.set("x", "hey");
+		c1.commit();
+
+		Connection c2 = database.newConnection();
+		c2.begin();
+		Utils.assertWith(c2.get("x").equals("hey"), "c2 should get x");
+		long hits = cache.getHits();
+		Utils.assertWith(c2.get("x").equals("hey"), "c2 should get x again");
+		Utils.assertWith(cache.getHits() == hits + 1, "second read should hit cache");
+
+		// snapshot tx begins before c3 commit
+		database.setDefaultIsolationLevel(IsolationLevel.Snapshot);
+		Connection c4 = database.newConnection();
+		c4.begin();
+		database.setDefaultIsolationLevel(IsolationLevel.ReadCommitted);
+
+		Connection c3 = database.newConnection();
+		c3.begin();
+		c3.set("x", "yall");
+		Utils.assertWith(c2.get("x").equals("hey"), "c3 operation is not committed");
+		c3.commit();
+		Utils.assertWith(c2.get("x").equals("yall"), "cache should be invalidated after c3 committed");
+
+		// cached value is committed after c4 begin, so c4 still read its snapshot
+		Utils.assertWith(c4.get("x").equals("hey"), "c4 should not read c3 operation from cache");
+
+		System.out.println("Latest value cache test pass: " + cache);
+	}
+
+	// index lookup follows the visibility of the indexed versions
+	private static void secondaryIndexTest() {
+		database.setDefaultIsolationLevel(IsolationLevel.RepeatableRead);
+		// index by the first character of value
+		database.createIndex("initial", value -> value.isEmpty() ? null : value.substring(0, 1));
+
+		Connection c1 = database.newConnection();
+		c1.begin();
+		c1.set("x", "hey");
+		c1.set("y", "hello");
+		c1.set("z", "yall");
+		Utils.assertWith(c1.lookup("initial", "h").equals("x,y"), "local change is visible in index");
+
+		Connection c2 = database.newConnection();
+		c2.begin();
+		Utils.assertWith(c2.lookup("initial", "h").equals(Connection.NO_RECORD_BE_MODIFIED),
+				"uncommitted change is not visible in index");
+		c1.commit();
+
+		Connection c3 = database.newConnection();
+		c3.begin();
+		Utils.assertWith(c3.lookup("initial", "h").equals("x,y"), "c1 operations are visible for c3");
+		// update moves x to another index key, delete removes y from index
+		c3.set("x", "yo");
+		c3.delete("y");
+		Utils.assertWith(c3.lookup("initial", "h").equals(Connection.NO_RECORD_BE_MODIFIED),
+				"old versions are not visible for c3");
+		Utils.assertWith(c3.lookup("initial", "y").equals("x,z"), "c3 set x");
+		c3.commit();
+
+		// c2 still read its snapshot
+		Utils.assertWith(c2.lookup("initial", "h").equals(Connection.NO_RECORD_BE_MODIFIED),
+				"c1 and c3 operations are not visible for c2");
+
+		Connection c4 = database.newConnection();
+		c4.begin();
+		Utils.assertWith(c4.lookup("initial", "y").equals("x,z"), "c3 operations are visible for c4");
+
+		// phantom: both tx find nothing by index key and insert a record with the index key
+		database.setDefaultIsolationLevel(IsolationLevel.Serializable);
+		Connection c5 = database.newConnection();
+		c5.begin();
+		Connection c6 = database.newConnection();
+		c6.begin();
+		Utils.assertWith(c5.lookup("initial", "q").equals(Connection.NO_RECORD_BE_MODIFIED), "no q for c5");
+		Utils.assertWith(c6.lookup("initial", "q").equals(Connection.NO_RECORD_BE_MODIFIED), "no q for c6");
+		c5.set("a", "quiz");
+		c6.set("b", "quay");
+		Utils.assertWith(c5.commit().isEmpty(), "c5 commit first");
+		Utils.assertWith(c6.commit().equals("read-write conflict"),
+				"c6 lookup result is changed by c5, read-write conflict should be detected");
+
+		System.out.println("Secondary index test pass");
+	}
+
+	// compare cost of set command with and without index maintenance
+	private static void secondaryIndexWriteBenchmark() {
+		int txs = 1_000;
+		int writesPerTx = 100;
+		for (int round = 0; round < 5; round++) {	// first rounds warm up jit
+			long base = writeBenchmark(Database.newDatabase(), txs, writesPerTx);
+
+			Database indexed = Database.newDatabase();
+			indexed.createIndex("initial", value -> value.substring(0, 1));
+			long withIndex = writeBenchmark(indexed, txs, writesPerTx);
+
+			System.out.printf("round %d: base %d ns/write, with index %d ns/write%n",
+					round, base / (txs * writesPerTx), withIndex / (txs * writesPerTx));
+		}
+	}
+
+	private static long writeBenchmark(Database db, int txs, int writesPerTx) {
+		long start = System.nanoTime();
+		for (int i = 0; i < txs; i++) {
+			Connection c = db.newConnection();
+			c.begin();
+			for (int j = 0; j < writesPerTx; j++) {
+				c.set("key" + (i * writesPerTx + j), "value" + j);
+			}
+			c.commit();
+		}
+		return System.nanoTime() - start;
+	}
+
+	// replay randomized histories against every isolation level,
+	// anomalies prevented by the isolation level should not be found.
+	private static void workloadAnomalyTest() {
+		WorkloadConfig[] configs = {
+				new WorkloadConfig(2, 3_000, 4, 3, 0),	// hot keys with few connections
+				new WorkloadConfig(8, 5_000, 6, 10, 0.1)
+		};
+		for (WorkloadConfig config : configs) {
+			WorkloadRunner runner = new WorkloadRunner(config);
+			for (IsolationLevel isolationLevel : IsolationLevel.values()) {
+				for (long seed = 0; seed < 3; seed++) {
+					WorkloadReport report = runner.run(isolationLevel, seed);
+					System.out.println(report);
+					Utils.assertWith(!report.hasProhibitedAnomaly(),
+							"prohibited anomaly found in " + isolationLevel + ", seed " + seed);
+				}
+			}
+		}
+
+		System.out.println("Workload anomaly test pass");
+	}
+
+	// rough heap usage per key with and without compact encoding,
+	// run with enough heap, e.g. -Xmx3g
+	private static void compactEncodingMemoryReport() {
+		for (boolean compact : new boolean[]{false, true}) {
+			int txs = 10_000;
+			int writesPerTx = 50;
+			long before = usedMemory();
+
+			Database db = Database.newDatabase();
+			db.setCompactEncoding(compact);
+			for (int i = 0; i < txs; i++) {
+				Connection c = db.newConnection();
+				c.begin();
+				for (int j = 0; j < writesPerTx; j++) {
+					String key = "user:" + (i * writesPerTx + j);
+					c.set(key, "value-" + (i * writesPerTx + j));
+					c.get(key);
+				}
+				c.commit();
+			}
+
+			long bytesPerKey = (usedMemory() - before) / ((long) txs * writesPerTx);
+			System.out.println((compact ? "compact" : "default") + " encoding: " + bytesPerKey + " bytes/key");
+			Reference.reachabilityFence(db);	// keep db reachable until measured
+		}
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.hevin.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.hevin.utils.Utils;
+
+// Read-through cache of the latest committed value of keys, evict the least recently used key when full.
+// Every entry remember the commit sequence when it was cached,
+// so snapshot tx can tell whether the entry is in its snapshot.
+public class LatestValueCache {
+
+	private final int maxSize;
+	private final LinkedHashMap<String, CachedValue> entries;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public LatestValueCache(int maxSize) {
+		Utils.assertWith(maxSize > 0, "max size of latest value cache should be positive");
+		this.maxSize = maxSize;
+		// access order to evict the least recently used key
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedValue> eldest) {
+				if (size() > LatestValueCache.this.maxSize) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	// return null if key is not cached, or cached after the given commit sequence
+	public CachedValue get(String key, long visibleCommitSequence) {
+		CachedValue cached = entries.get(key);
+		if (cached == null || cached.getCommitSequence() > visibleCommitSequence) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return cached;
+	}
+
+	public void put(String key, String value, long commitSequence) {
+		entries.put(key, new CachedValue(value, commitSequence));
+	}
+
+	public void invalidate(String key) {
+		entries.remove(key);
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+
+	@Override
+	public String toString() {
+		return "LatestValueCache{size=" + entries.size() + ", hits=" + hits + ", misses=" + misses
+				+ ", evictions=" + evictions + "}";
+	}
+
+	public static class CachedValue {
+
+		private final String value;	// null means no visible value(not exist or deleted)
+		private final long commitSequence;
+
+		public CachedValue(String value, long commitSequence) {
+			this.value = value;
+			this.commitSequence = commitSequence;
+		}
+
+		public String getValue() {
+			return value;
+		}
+
+		public long getCommitSequence() {
+			return commitSequence;
+		}
+	}
+}
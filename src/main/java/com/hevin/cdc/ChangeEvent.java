@@ -0,0 +1,35 @@
+package com.hevin.cdc;
+
+import java.util.Collections;
+import java.util.Map;
+
+// one committed transaction in the change stream
+public class ChangeEvent {
+
+	private final long position;	// commit position, increase by one for every committed tx with writes
+	private final int txId;
+	private final Map<String, String> changes;	// key -> new value, null value means the key is deleted
+
+	public ChangeEvent(long position, int txId, Map<String, String> changes) {
+		this.position = position;
+		this.txId = txId;
+		this.changes = Collections.unmodifiableMap(changes);
+	}
+
+	public long getPosition() {
+		return position;
+	}
+
+	public int getTxId() {
+		return txId;
+	}
+
+	public Map<String, String> getChanges() {
+		return changes;
+	}
+
+	@Override
+	public String toString() {
+		return "ChangeEvent{position=" + position + ", txId=" + txId + ", changes=" + changes + "}";
+	}
+}
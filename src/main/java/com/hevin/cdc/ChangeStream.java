@@ -0,0 +1,175 @@
+package com.hevin.cdc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+import com.hevin.utils.Utils;
+
+// Change data capture stream of committed transactions.
+// Committed changes are kept in a bounded ring buffer, so committer never wait for subscribers.
+// Subscribers pull events by Subscription.request(n)(back-pressure),
+// a subscriber fall behind more than the buffer capacity will receive onError.
+// Events are delivered in the thread that commits or requests, same as the database, it is not designed for
+// heavy concurrency. A subscriber that throws from its callbacks is cancelled, it never fails the commit.
+public class ChangeStream implements Flow.Publisher<ChangeEvent> {
+
+	private final ChangeEvent[] buffer;
+	private final List<ChangeSubscription> subscriptions = new ArrayList<>();
+	private long nextPosition = 1;	// position of the next committed tx
+
+	public ChangeStream(int capacity) {
+		Utils.assertWith(capacity > 0, "capacity of change stream should be positive");
+		this.buffer = new ChangeEvent[capacity];
+	}
+
+	public synchronized long publish(int txId, Map<String, String> changes) {
+		long position = nextPosition++;
+		buffer[index(position)] = new ChangeEvent(position, txId, changes);
+		Utils.debug("publish change: " + position + ", tx: " + txId);
+
+		for (ChangeSubscription subscription : List.copyOf(subscriptions)) {
+			subscription.drain();
+		}
+		return position;
+	}
+
+	// the oldest position still kept in the ring buffer
+	public synchronized long oldestPosition() {
+		return Math.max(1, nextPosition - buffer.length);
+	}
+
+	public synchronized long nextPosition() {
+		return nextPosition;
+	}
+
+	// tail changes committed after subscribe
+	@Override
+	public synchronized void subscribe(Flow.Subscriber<? super ChangeEvent> subscriber) {
+		subscribe(subscriber, nextPosition);
+	}
+
+	// resume from a commit position, usually the last position consumer handled + 1
+	public synchronized void subscribe(Flow.Subscriber<? super ChangeEvent> subscriber, long fromPosition) {
+		Objects.requireNonNull(subscriber, "subscriber");
+		ChangeSubscription subscription = new ChangeSubscription(subscriber, fromPosition);
+		RuntimeException rejection = null;
+		// a subscriber can only subscribe once, cancel the old subscription to resume from other position
+		if (subscriptions.stream().anyMatch(s -> s.subscriber == subscriber)) {
+			rejection = new IllegalStateException("subscriber is already subscribed");
+		} else if (fromPosition > nextPosition) {
+			rejection = new RuntimeException("position " + fromPosition + " is not committed yet");
+		}
+
+		if (rejection != null) {
+			subscription.done = true;	// request on rejected subscription delivers nothing
+		} else {
+			subscriptions.add(subscription);
+		}
+
+		try {
+			subscriber.onSubscribe(subscription);
+		} catch (Throwable t) {
+			Utils.debug("subscriber failed in onSubscribe: " + t);
+			subscription.cancel();
+			return;
+		}
+
+		if (rejection != null) {
+			subscription.fail(rejection);
+		} else {
+			subscription.drain();	// report truncated position if any
+		}
+	}
+
+	private int index(long position) {
+		return (int) ((position - 1) % buffer.length);
+	}
+
+	// all fields are guarded by ChangeStream.this
+	private class ChangeSubscription implements Flow.Subscription {
+
+		private final Flow.Subscriber<? super ChangeEvent> subscriber;
+		private long position;	// next position to deliver
+		private long demand;
+		private boolean draining;	// subscriber may request again in onNext
+		private boolean done;
+
+		private ChangeSubscription(Flow.Subscriber<? super ChangeEvent> subscriber, long position) {
+			this.subscriber = subscriber;
+			this.position = position;
+		}
+
+		@Override
+		public void request(long n) {
+			synchronized (ChangeStream.this) {
+				if (done) {
+					return;
+				}
+				if (n <= 0) {
+					fail(new IllegalArgumentException("request should be positive: " + n));
+					return;
+				}
+
+				demand += n;
+				if (demand < 0) {	// overflow means unbounded
+					demand = Long.MAX_VALUE;
+				}
+				drain();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			synchronized (ChangeStream.this) {
+				done = true;
+				subscriptions.remove(this);
+			}
+		}
+
+		private void drain() {
+			if (draining || done) {
+				return;
+			}
+
+			draining = true;
+			try {
+				while (!done) {
+					// event is overwritten by newer commits before delivered
+					if (position < oldestPosition()) {
+						fail(new RuntimeException(
+								"position " + position + " is truncated, oldest position: " + oldestPosition()));
+						return;
+					}
+					if (demand == 0 || position == nextPosition) {
+						return;
+					}
+
+					ChangeEvent event = buffer[index(position)];
+					position++;
+					demand--;
+					try {
+						subscriber.onNext(event);
+					} catch (Throwable t) {
+						Utils.debug("subscriber failed in onNext: " + t);
+						cancel();
+						return;
+					}
+				}
+			} finally {
+				draining = false;
+			}
+		}
+
+		private void fail(Throwable throwable) {
+			cancel();
+			try {
+				subscriber.onError(throwable);
+			} catch (Throwable t) {
+				Utils.debug("subscriber failed in onError: " + t);
+			}
+		}
+	}
+}
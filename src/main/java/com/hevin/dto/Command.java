@@ -7,5 +7,6 @@ public enum Command {
 
 	Get,
 	Set,
-	Delete
+	Delete,
+	Lookup
 }
@@ -5,6 +5,7 @@ import java.util.Set;
 
 import com.hevin.state.IsolationLevel;
 import com.hevin.state.TransactionState;
+import com.hevin.utils.IntHashSet;
 
 public class Transaction {
 
@@ -12,8 +13,17 @@ public class Transaction {
 	private final int id;
 	private TransactionState state;
 	private final Set<Integer> inProgress;	// for handle RepeatableRead, Snapshot, Serializable isolation level
-	private final Set<String> writeSet = new HashSet<>();
-	private final Set<String> readSet = new HashSet<>();
+	private final long beginCommitSequence;	// commits before this sequence are in the snapshot of this tx
+	// ids of keys interned by KeyDictionary
+	private final IntHashSet writeSet = new IntHashSet();
+	private final IntHashSet readSet = new IntHashSet();
+	// keys read before they are ever written, not interned to avoid growing KeyDictionary by reads.
+	// null until used.
+	private Set<String> missingKeyReadSet;
+	// index predicates(SecondaryIndex.predicate) read by lookup and written by upsert/delete,
+	// for Serializable to detect phantom. null until used, most tx never touch index.
+	private Set<String> indexReadSet;
+	private Set<String> indexWriteSet;
 
 	public static final int INVALID_TRANSACTION_ID = 0;
 
@@ -22,11 +32,12 @@ public class Transaction {
 	}
 
 	public Transaction(IsolationLevel isolationLevel, int id, TransactionState state,
-			Set<Integer> inProgress) {
+			Set<Integer> inProgress, long beginCommitSequence) {
 		this.isolationLevel = isolationLevel;
 		this.id = id;
 		this.state = state;
 		this.inProgress = inProgress;
+		this.beginCommitSequence = beginCommitSequence;
 	}
 
 	public int getId() {
@@ -45,12 +56,49 @@ public class Transaction {
 		return inProgress;
 	}
 
-	public Set<String> getWriteSet() {
+	public long getBeginCommitSequence() {
+		return beginCommitSequence;
+	}
+
+	public IntHashSet getWriteSet() {
 		return writeSet;
 	}
 
-	public Set<String> getReadSet() {
+	public IntHashSet getReadSet() {
 		return readSet;
 	}
 
+	public Set<String> getMissingKeyReadSet() {
+		return missingKeyReadSet == null ? Set.of() : missingKeyReadSet;
+	}
+
+	public void addMissingKeyRead(String key) {
+		if (missingKeyReadSet == null) {
+			missingKeyReadSet = new HashSet<>();
+		}
+		missingKeyReadSet.add(key);
+	}
+
+	public Set<String> getIndexReadSet() {
+		return indexReadSet == null ? Set.of() : indexReadSet;
+	}
+
+	public void addIndexRead(String predicate) {
+		if (indexReadSet == null) {
+			indexReadSet = new HashSet<>();
+		}
+		indexReadSet.add(predicate);
+	}
+
+	public Set<String> getIndexWriteSet() {
+		return indexWriteSet == null ? Set.of() : indexWriteSet;
+	}
+
+	public void addIndexWrite(String predicate) {
+		if (indexWriteSet == null) {
+			indexWriteSet = new HashSet<>();
+		}
+		indexWriteSet.add(predicate);
+	}
+
 }
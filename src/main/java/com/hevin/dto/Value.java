@@ -1,16 +1,38 @@
 package com.hevin.dto;
 
+import java.nio.charset.StandardCharsets;
+
+import com.hevin.state.TransactionState;
+
 public class Value {
 
+	private static final TransactionState[] STATES = TransactionState.values();
+	private static final int HINT_BITS = 2;	// 0 means not resolved, otherwise ordinal of state + 1
+	private static final int HINT_MASK = (1 << HINT_BITS) - 1;
+	private static final int TX_START_HINT_SHIFT = 0;
+	private static final int TX_END_HINT_SHIFT = HINT_BITS;
+
 	private int txStartId;	// created by (if operation is update, it will add record with new version)
 	private int txEndId;	// deleted by
-	private String value;
+	// String, or UTF-8 byte[] in compact encoding. One field for both, so no version pays for an unused field.
+	private Object value;
+	// hint bits: settled(committed/aborted) state of creator and deleter, like postgres.
+	// packed in one byte, not resolved means need to look up the transaction table.
+	private byte hints;
 
 	public Value(int txStartId, String value) {
 		this.txStartId = txStartId;
 		this.value = value;
 	}
 
+	// store value as UTF-8 bytes, save the String object for each version but decode on every read.
+	// No length prefix: byte[] already knows its length.
+	public static Value encoded(int txStartId, String value) {
+		Value v = new Value(txStartId, null);
+		v.value = value.getBytes(StandardCharsets.UTF_8);
+		return v;
+	}
+
 	public int getTxStartId() {
 		return txStartId;
 	}
@@ -21,15 +43,47 @@ public class Value {
 
 	public void setTxEndId(int txEndId) {
 		this.txEndId = txEndId;
+		setTxEndHint(null);	// deleter changed, old hint is not valid anymore
+	}
+
+	// null if not resolved yet
+	public TransactionState getTxStartHint() {
+		return getHint(TX_START_HINT_SHIFT);
+	}
+
+	public void setTxStartHint(TransactionState txStartHint) {
+		setHint(TX_START_HINT_SHIFT, txStartHint);
+	}
+
+	// null if not resolved yet
+	public TransactionState getTxEndHint() {
+		return getHint(TX_END_HINT_SHIFT);
+	}
+
+	public void setTxEndHint(TransactionState txEndHint) {
+		setHint(TX_END_HINT_SHIFT, txEndHint);
 	}
 
 	public String getValue() {
-		return value;
+		if (value instanceof byte[] bytes) {
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+		return (String) value;
 	}
 
 	public void setValue(String value) {
 		this.value = value;
 	}
 
+	private TransactionState getHint(int shift) {
+		int hint = (hints >> shift) & HINT_MASK;
+		return hint == 0 ? null : STATES[hint - 1];
+	}
+
+	private void setHint(int shift, TransactionState state) {
+		int hint = state == null ? 0 : state.ordinal() + 1;
+		hints = (byte) ((hints & ~(HINT_MASK << shift)) | (hint << shift));
+	}
+
 
 }
@@ -0,0 +1,45 @@
+package com.hevin.encoding;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Intern keys to int ids, so store and read/write sets of tx share one copy of every key.
+// Ids start from 1 and are never reused.
+public class KeyDictionary {
+
+	public static final int INVALID_KEY_ID = 0;
+
+	private final Map<String, Integer> ids = new HashMap<>();
+	private final List<String> keys = new ArrayList<>();
+
+	public KeyDictionary() {
+		keys.add(null);	// INVALID_KEY_ID
+	}
+
+	public int intern(String key) {
+		Integer id = ids.get(key);
+		if (id != null) {
+			return id;
+		}
+		id = keys.size();
+		keys.add(key);
+		ids.put(key, id);
+		return id;
+	}
+
+	// INVALID_KEY_ID if the key is never interned
+	public int idOf(String key) {
+		return ids.getOrDefault(key, INVALID_KEY_ID);
+	}
+
+	public String keyOf(int id) {
+		return keys.get(id);
+	}
+
+	// number of interned keys, ids are in [1, size]
+	public int size() {
+		return keys.size() - 1;
+	}
+}
@@ -0,0 +1,70 @@
+package com.hevin.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.hevin.dto.Value;
+
+// Secondary index from index key(derived from value) to versions of records.
+// Index entry points to the same Value object in store, so delete operation(txEndId) and visibility
+// of the version are shared with store, index only need to be maintained when new version is created.
+public class SecondaryIndex {
+
+	private final String name;
+	private final Function<String, String> indexKeyFn;	// return null if value should not be indexed
+	private final Map<String, List<Entry>> entries = new HashMap<>();
+
+	public SecondaryIndex(String name, Function<String, String> indexKeyFn) {
+		this.name = name;
+		this.indexKeyFn = indexKeyFn;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	// return the index key of version, null if not indexed
+	public String add(String key, Value version) {
+		String indexKey = indexKeyOf(version.getValue());
+		if (indexKey != null) {
+			entries.computeIfAbsent(indexKey, k -> new ArrayList<>()).add(new Entry(key, version));
+		}
+		return indexKey;
+	}
+
+	public String indexKeyOf(String value) {
+		return indexKeyFn.apply(value);
+	}
+
+	// identify "index key of this index" in index read/write set of tx
+	public String predicate(String indexKey) {
+		return name + '\0' + indexKey;
+	}
+
+	// all versions with the index key, caller should check the visibility
+	public List<Entry> candidates(String indexKey) {
+		return entries.getOrDefault(indexKey, List.of());
+	}
+
+	public static class Entry {
+
+		private final String key;
+		private final Value version;
+
+		public Entry(String key, Value version) {
+			this.key = key;
+			this.version = version;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public Value getVersion() {
+			return version;
+		}
+	}
+}
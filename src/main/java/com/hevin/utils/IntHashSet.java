@@ -0,0 +1,94 @@
+package com.hevin.utils;
+
+import java.util.function.IntConsumer;
+
+// Set of positive int without boxing, open addressing with linear probing.
+// 0 marks an empty slot, so it can not be added.
+public final class IntHashSet {
+
+	private static final int EMPTY = 0;
+	private static final int[] EMPTY_TABLE = {};	// most read-only tx never write, allocate on first add
+
+	private int[] table = EMPTY_TABLE;
+	private int size;
+
+	public boolean add(int value) {
+		Utils.assertWith(value != EMPTY, "0 can not be added to IntHashSet");
+		if ((size + 1) * 4 > table.length * 3) {	// load factor 0.75
+			resize(Math.max(4, table.length * 2));
+		}
+		if (insert(table, value)) {
+			size++;
+			return true;
+		}
+		return false;
+	}
+
+	public boolean contains(int value) {
+		if (size == 0 || value == EMPTY) {
+			return false;
+		}
+		int mask = table.length - 1;
+		for (int i = slot(value, mask); table[i] != EMPTY; i = (i + 1) & mask) {
+			if (table[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean containsAny(IntHashSet other) {
+		IntHashSet smaller = size <= other.size ? this : other;
+		IntHashSet larger = smaller == this ? other : this;
+		for (int value : smaller.table) {
+			if (value != EMPTY && larger.contains(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void forEach(IntConsumer action) {
+		for (int value : table) {
+			if (value != EMPTY) {
+				action.accept(value);
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	private void resize(int capacity) {
+		int[] newTable = new int[capacity];
+		for (int value : table) {
+			if (value != EMPTY) {
+				insert(newTable, value);
+			}
+		}
+		table = newTable;
+	}
+
+	private static boolean insert(int[] table, int value) {
+		int mask = table.length - 1;
+		int i = slot(value, mask);
+		while (table[i] != EMPTY) {
+			if (table[i] == value) {
+				return false;
+			}
+			i = (i + 1) & mask;
+		}
+		table[i] = value;
+		return true;
+	}
+
+	private static int slot(int value, int mask) {
+		int h = value * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+}
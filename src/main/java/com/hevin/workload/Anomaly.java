@@ -0,0 +1,22 @@
+package com.hevin.workload;
+
+import com.hevin.state.IsolationLevel;
+
+public enum Anomaly {
+	// read a value written by other tx which is not committed at the time of read
+	DirtyRead(IsolationLevel.ReadCommitted),
+	// two concurrent tx read the same value of a key and both write the key
+	LostUpdate(IsolationLevel.Snapshot),
+	// two concurrent tx read the key the other one writes, and write disjoint keys
+	WriteSkew(IsolationLevel.Serializable);
+
+	private final IsolationLevel prohibitedFrom;	// the weakest isolation level which prevents this anomaly
+
+	Anomaly(IsolationLevel prohibitedFrom) {
+		this.prohibitedFrom = prohibitedFrom;
+	}
+
+	public boolean isProhibited(IsolationLevel isolationLevel) {
+		return isolationLevel.compareTo(prohibitedFrom) >= 0;
+	}
+}
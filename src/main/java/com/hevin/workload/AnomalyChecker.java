@@ -0,0 +1,176 @@
+package com.hevin.workload;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Check recorded history for anomalies, inspired by Elle.
+// Every write in the history has an unique value, so the writer of a read value is known without
+// knowing the internals of the database.
+public class AnomalyChecker {
+
+	private static final int MAX_EXAMPLES = 3;
+
+	private final Map<Anomaly, Integer> counts = new EnumMap<>(Anomaly.class);
+	private final Map<Anomaly, List<String>> examples = new EnumMap<>(Anomaly.class);
+
+	public AnomalyChecker(List<TxRecord> history) {
+		for (Anomaly anomaly : Anomaly.values()) {
+			counts.put(anomaly, 0);
+			examples.put(anomaly, new ArrayList<>());
+		}
+
+		checkDirtyRead(history);
+		checkLostUpdate(history);
+		checkWriteSkew(history);
+	}
+
+	public int count(Anomaly anomaly) {
+		return counts.get(anomaly);
+	}
+
+	public List<String> examples(Anomaly anomaly) {
+		return examples.get(anomaly);
+	}
+
+	private void report(Anomaly anomaly, String example) {
+		counts.merge(anomaly, 1, Integer::sum);
+		if (examples.get(anomaly).size() < MAX_EXAMPLES) {
+			examples.get(anomaly).add(example);
+		}
+	}
+
+	private void checkDirtyRead(List<TxRecord> history) {
+		Map<String, TxRecord> writers = new HashMap<>();	// value -> tx wrote the value
+		for (TxRecord tx : history) {
+			for (Operation op : tx.getOperations()) {
+				if (op.getType() == Operation.Type.Write) {
+					writers.put(op.getValue(), tx);
+				}
+			}
+		}
+
+		for (TxRecord tx : history) {
+			for (Operation op : tx.getOperations()) {
+				if (op.getType() != Operation.Type.Read || op.getValue() == null) {
+					continue;
+				}
+				TxRecord writer = writers.get(op.getValue());
+				if (writer == tx) {
+					continue;
+				}
+				// writer is aborted or committed after the read
+				if (!writer.isCommitted() || writer.getEndStep() > op.getStep()) {
+					report(Anomaly.DirtyRead, tx + " read " + op + " from " + writer);
+				}
+			}
+		}
+	}
+
+	private void checkLostUpdate(List<TxRecord> history) {
+		Map<String, List<TxRecord>> readModifyWriters = new HashMap<>();	// key -> committed tx read then write it
+		for (TxRecord tx : history) {
+			if (!tx.isCommitted()) {
+				continue;
+			}
+			for (String key : writtenKeys(tx)) {
+				if (tx.firstReadBeforeWrite(key) != null) {
+					readModifyWriters.computeIfAbsent(key, k -> new ArrayList<>()).add(tx);
+				}
+			}
+		}
+
+		for (Map.Entry<String, List<TxRecord>> e : readModifyWriters.entrySet()) {
+			String key = e.getKey();
+			List<TxRecord> txs = e.getValue();
+			for (int i = 0; i < txs.size(); i++) {
+				for (int j = i + 1; j < txs.size(); j++) {
+					TxRecord a = txs.get(i);
+					TxRecord b = txs.get(j);
+					if (a.overlaps(b) && Objects.equals(a.firstReadBeforeWrite(key).getValue(),
+							b.firstReadBeforeWrite(key).getValue())) {
+						report(Anomaly.LostUpdate, a + " and " + b + " on " + key);
+					}
+				}
+			}
+		}
+	}
+
+	// write skew: concurrent T1 and T2, T1 reads x and T2 writes x, T2 reads y and T1 writes y,
+	// and neither of them observed the write of the other one (rw anti-dependency cycle of two tx).
+	private void checkWriteSkew(List<TxRecord> history) {
+		Map<String, List<TxRecord>> committedWriters = new HashMap<>();
+		for (TxRecord tx : history) {
+			if (tx.isCommitted()) {
+				for (String key : writtenKeys(tx)) {
+					committedWriters.computeIfAbsent(key, k -> new ArrayList<>()).add(tx);
+				}
+			}
+		}
+
+		// reader -> writer -> keys of rw anti-dependency
+		Map<TxRecord, Map<TxRecord, Set<String>>> antiDependencies = new HashMap<>();
+		for (TxRecord reader : history) {
+			if (!reader.isCommitted()) {
+				continue;
+			}
+			for (Operation read : reader.getOperations()) {
+				if (read.getType() != Operation.Type.Read || reader.writes(read.getKey())) {
+					continue;
+				}
+				for (TxRecord writer : committedWriters.getOrDefault(read.getKey(), List.of())) {
+					if (writer != reader && reader.overlaps(writer)
+							&& (read.getValue() == null || !writer.wroteValue(read.getKey(), read.getValue()))) {
+						antiDependencies.computeIfAbsent(reader, k -> new HashMap<>())
+								.computeIfAbsent(writer, k -> new HashSet<>())
+								.add(read.getKey());
+					}
+				}
+			}
+		}
+
+		for (Map.Entry<TxRecord, Map<TxRecord, Set<String>>> e : antiDependencies.entrySet()) {
+			TxRecord t1 = e.getKey();
+			for (Map.Entry<TxRecord, Set<String>> edge : e.getValue().entrySet()) {
+				TxRecord t2 = edge.getKey();
+				if (t1.getTxNo() > t2.getTxNo()) {	// report each pair once
+					continue;
+				}
+				Set<String> back = antiDependencies.getOrDefault(t2, Map.of()).get(t1);
+				if (back == null) {
+					continue;
+				}
+				String skew = firstDistinctPair(edge.getValue(), back);
+				if (skew != null) {
+					report(Anomaly.WriteSkew, t1 + " and " + t2 + " on " + skew);
+				}
+			}
+		}
+	}
+
+	private static String firstDistinctPair(Set<String> xs, Set<String> ys) {
+		for (String x : xs) {
+			for (String y : ys) {
+				if (!x.equals(y)) {
+					return x + ", " + y;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static Set<String> writtenKeys(TxRecord tx) {
+		Set<String> keys = new HashSet<>();
+		for (Operation op : tx.getOperations()) {
+			if (op.getType() == Operation.Type.Write) {
+				keys.add(op.getKey());
+			}
+		}
+		return keys;
+	}
+}
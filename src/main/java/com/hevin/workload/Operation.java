@@ -0,0 +1,43 @@
+package com.hevin.workload;
+
+// one read or write in the history
+public class Operation {
+
+	public enum Type {
+		Read,
+		Write
+	}
+
+	private final Type type;
+	private final String key;
+	private final String value;	// value read or written, null if read nothing
+	private final long step;	// global order of the operation in history
+
+	public Operation(Type type, String key, String value, long step) {
+		this.type = type;
+		this.key = key;
+		this.value = value;
+		this.step = step;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	public long getStep() {
+		return step;
+	}
+
+	@Override
+	public String toString() {
+		return (type == Type.Read ? "r(" : "w(") + key + "," + value + ")";
+	}
+}
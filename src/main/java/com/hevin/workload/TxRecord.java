@@ -0,0 +1,94 @@
+package com.hevin.workload;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// recorded tx in the history, numbered by the client since tx id of database is not exposed to connection
+public class TxRecord {
+
+	public enum Outcome {
+		InProgress,
+		Committed,
+		Aborted,	// aborted by client
+		ConflictAborted	// aborted by database when commit
+	}
+
+	private final int txNo;
+	private final int connection;
+	private final long beginStep;
+	private long endStep = Long.MAX_VALUE;
+	private Outcome outcome = Outcome.InProgress;
+	private final List<Operation> operations = new ArrayList<>();
+
+	public TxRecord(int txNo, int connection, long beginStep) {
+		this.txNo = txNo;
+		this.connection = connection;
+		this.beginStep = beginStep;
+	}
+
+	public void complete(Outcome outcome, long endStep) {
+		this.outcome = outcome;
+		this.endStep = endStep;
+	}
+
+	public boolean isCommitted() {
+		return outcome == Outcome.Committed;
+	}
+
+	// both tx are running at the same time
+	public boolean overlaps(TxRecord other) {
+		return beginStep < other.endStep && other.beginStep < endStep;
+	}
+
+	// the first operation on key if it is a read, null if tx writes key before reading it or never touches it
+	public Operation firstReadBeforeWrite(String key) {
+		for (Operation op : operations) {
+			if (!op.getKey().equals(key)) {
+				continue;
+			}
+			return op.getType() == Operation.Type.Read ? op : null;
+		}
+		return null;
+	}
+
+	public boolean writes(String key) {
+		return operations.stream()
+				.anyMatch(op -> op.getType() == Operation.Type.Write && op.getKey().equals(key));
+	}
+
+	public boolean wroteValue(String key, String value) {
+		return operations.stream()
+				.anyMatch(op -> op.getType() == Operation.Type.Write && op.getKey().equals(key)
+						&& op.getValue().equals(value));
+	}
+
+	public int getTxNo() {
+		return txNo;
+	}
+
+	public int getConnection() {
+		return connection;
+	}
+
+	public long getBeginStep() {
+		return beginStep;
+	}
+
+	public long getEndStep() {
+		return endStep;
+	}
+
+	public Outcome getOutcome() {
+		return outcome;
+	}
+
+	public List<Operation> getOperations() {
+		return operations;
+	}
+
+	@Override
+	public String toString() {
+		return "T" + txNo + "[c" + connection + ", " + beginStep + "-" + endStep + ", " + outcome + "] "
+				+ operations;
+	}
+}
@@ -0,0 +1,46 @@
+package com.hevin.workload;
+
+import com.hevin.utils.Utils;
+
+public class WorkloadConfig {
+
+	private final int connections;
+	private final int transactions;	// number of tx to run
+	private final int maxOperationsPerTx;
+	private final int keys;	// less keys means more contention
+	private final double abortRate;	// chance of client abort instead of commit
+
+	public WorkloadConfig(int connections, int transactions, int maxOperationsPerTx, int keys,
+			double abortRate) {
+		Utils.assertWith(connections > 0, "expect at least 1 connection");
+		Utils.assertWith(transactions > 0, "expect at least 1 transaction");
+		Utils.assertWith(maxOperationsPerTx > 0, "expect at least 1 operation per transaction");
+		Utils.assertWith(keys > 0, "expect at least 1 key");
+		Utils.assertWith(abortRate >= 0 && abortRate <= 1, "abort rate should be in [0, 1]");
+		this.connections = connections;
+		this.transactions = transactions;
+		this.maxOperationsPerTx = maxOperationsPerTx;
+		this.keys = keys;
+		this.abortRate = abortRate;
+	}
+
+	public int getConnections() {
+		return connections;
+	}
+
+	public int getTransactions() {
+		return transactions;
+	}
+
+	public int getMaxOperationsPerTx() {
+		return maxOperationsPerTx;
+	}
+
+	public int getKeys() {
+		return keys;
+	}
+
+	public double getAbortRate() {
+		return abortRate;
+	}
+}
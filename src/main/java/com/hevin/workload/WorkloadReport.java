@@ -0,0 +1,75 @@
+package com.hevin.workload;
+
+import java.util.List;
+
+import com.hevin.state.IsolationLevel;
+import com.hevin.workload.TxRecord.Outcome;
+
+public class WorkloadReport {
+
+	private final IsolationLevel isolationLevel;
+	private final long seed;
+	private final List<TxRecord> history;
+	private final int operations;
+	private final long elapsedNanos;
+	private final AnomalyChecker checker;
+
+	public WorkloadReport(IsolationLevel isolationLevel, long seed, List<TxRecord> history, int operations,
+			long elapsedNanos, AnomalyChecker checker) {
+		this.isolationLevel = isolationLevel;
+		this.seed = seed;
+		this.history = history;
+		this.operations = operations;
+		this.elapsedNanos = elapsedNanos;
+		this.checker = checker;
+	}
+
+	public List<TxRecord> getHistory() {
+		return history;
+	}
+
+	public AnomalyChecker getChecker() {
+		return checker;
+	}
+
+	public long count(Outcome outcome) {
+		return history.stream().filter(tx -> tx.getOutcome() == outcome).count();
+	}
+
+	// rate of tx aborted by database when commit
+	public double conflictAbortRate() {
+		long attempted = count(Outcome.Committed) + count(Outcome.ConflictAborted);
+		return attempted == 0 ? 0 : (double) count(Outcome.ConflictAborted) / attempted;
+	}
+
+	public double operationsPerSecond() {
+		return operations * 1e9 / elapsedNanos;
+	}
+
+	// anomalies found in history which should be prevented by the isolation level
+	public boolean hasProhibitedAnomaly() {
+		for (Anomaly anomaly : Anomaly.values()) {
+			if (anomaly.isProhibited(isolationLevel) && checker.count(anomaly) > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%s(seed %d): %d tx, %d committed, %d aborted, %d conflict aborted(%.1f%%), "
+						+ "%d ops, %.0f ops/s",
+				isolationLevel, seed, history.size(), count(Outcome.Committed), count(Outcome.Aborted),
+				count(Outcome.ConflictAborted), conflictAbortRate() * 100, operations, operationsPerSecond()));
+		for (Anomaly anomaly : Anomaly.values()) {
+			sb.append(String.format("%n  %s: %d%s", anomaly, checker.count(anomaly),
+					anomaly.isProhibited(isolationLevel) ? " (prohibited)" : ""));
+			for (String example : checker.examples(anomaly)) {
+				sb.append(String.format("%n    %s", example));
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,89 @@
+package com.hevin.workload;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.hevin.Connection;
+import com.hevin.Database;
+import com.hevin.state.IsolationLevel;
+import com.hevin.workload.TxRecord.Outcome;
+
+// Replay randomized interleaving of connections against a new database and record the history.
+// Database is not thread safe, so connections are interleaved by a single thread like the scenarios in Main,
+// and the same seed always replays the same history.
+public class WorkloadRunner {
+
+	private final WorkloadConfig config;
+
+	public WorkloadRunner(WorkloadConfig config) {
+		this.config = config;
+	}
+
+	public WorkloadReport run(IsolationLevel isolationLevel, long seed) {
+		Database database = Database.newDatabase();
+		database.setDefaultIsolationLevel(isolationLevel);
+		Random random = new Random(seed);
+
+		Connection[] connections = new Connection[config.getConnections()];
+		TxRecord[] running = new TxRecord[config.getConnections()];
+		for (int i = 0; i < connections.length; i++) {
+			connections[i] = database.newConnection();
+		}
+
+		List<TxRecord> history = new ArrayList<>();
+		long step = 0;
+		int operations = 0;
+		int runningCount = 0;
+		long start = System.nanoTime();
+		while (history.size() < config.getTransactions() || runningCount > 0) {
+			int c = random.nextInt(connections.length);
+			Connection connection = connections[c];
+			TxRecord tx = running[c];
+			step++;
+
+			if (tx == null) {
+				if (history.size() < config.getTransactions()) {
+					connection.begin();
+					tx = new TxRecord(history.size() + 1, c, step);
+					history.add(tx);
+					running[c] = tx;
+					runningCount++;
+				}
+				continue;
+			}
+
+			boolean complete = !tx.getOperations().isEmpty() && (tx.getOperations().size() >= config.getMaxOperationsPerTx()
+					|| random.nextInt(config.getMaxOperationsPerTx()) == 0);
+			if (complete) {
+				if (random.nextDouble() < config.getAbortRate()) {
+					connection.abort();
+					tx.complete(Outcome.Aborted, step);
+				} else {
+					String result = connection.commit();
+					tx.complete(result.isEmpty() ? Outcome.Committed : Outcome.ConflictAborted, step);
+				}
+				running[c] = null;
+				runningCount--;
+				continue;
+			}
+
+			String key = "k" + random.nextInt(config.getKeys());
+			if (random.nextBoolean()) {
+				String value = connection.get(key);
+				tx.getOperations().add(new Operation(Operation.Type.Read, key,
+						value.equals(Connection.NO_RECORD_BE_MODIFIED) ? null : value, step));
+			} else {
+				// unique value, so the checker knows who wrote a read value
+				String value = "t" + tx.getTxNo() + "." + tx.getOperations().size();
+				connection.set(key, value);
+				tx.getOperations().add(new Operation(Operation.Type.Write, key, value, step));
+			}
+			operations++;
+		}
+		long elapsedNanos = System.nanoTime() - start;
+
+		return new WorkloadReport(isolationLevel, seed, history, operations, elapsedNanos,
+				new AnomalyChecker(history));
+	}
+}